@@ -19,26 +19,48 @@ package ball.maven.wagon.providers;
  * ##########################################################################
  */
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.spi.FileTypeDetector;
+import java.util.EnumMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
 import java.util.ServiceLoader;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.wagon.AbstractWagon;
+import org.apache.maven.wagon.ConnectionException;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.resource.Resource;
 
+import static ball.maven.wagon.providers.TransferScheduler.Lane;
+import static ball.maven.wagon.providers.TransferScheduler.Operation;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.toList;
 import static lombok.AccessLevel.PROTECTED;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.apache.commons.lang3.StringUtils.strip;
 
 /**
- * Abstract {@link org.apache.maven.wagon.Wagon} which provides a
- * {@link #probeContentType(File)} method.
+ * Abstract {@link org.apache.maven.wagon.Wagon} which implements the
+ * transfer pipeline over an {@link ObjectStore} backend supplied by
+ * {@link #open()}.  Transfers are scheduled through a shared
+ * {@link TransferScheduler}.
  *
  * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
  */
@@ -50,12 +72,43 @@ public abstract class AbstractWagonProvider extends AbstractWagon {
      */
     protected static final String DELIMITER = "/";
 
+    private static final TransferScheduler SCHEDULER = new TransferScheduler();
+
+    private static final Pattern PRIORITY =
+        Pattern.compile("(^maven-metadata.*|.*[.](pom|md5|sha1|sha256|sha512|asc))$");
+
+    /**
+     * Global bandwidth cap (bytes per second) applied to the shared
+     * {@link TransferScheduler}.
+     */
+    @Getter @Setter private Long bandwidth = null;
+
+    /**
+     * Per-{@link Operation} concurrency limits (keyed by {@code get},
+     * {@code put}, {@code head}, or {@code list}) applied to the shared
+     * {@link TransferScheduler}.
+     */
+    @Getter @Setter private Properties concurrency = null;
+
+    /**
+     * Transfers of no more than {@link #smallObjectSize} bytes are
+     * scheduled in the {@link Lane#PRIORITY} lane.
+     */
+    @Getter @Setter private long smallObjectSize = 64 * 1024;
+
+    private volatile ObjectStore store = null;
     private URI uri = null;
     private String prefix = null;
     private ServiceLoader<FileTypeDetector> loader =
         ServiceLoader.load(FileTypeDetector.class, getClass().getClassLoader());
 
-    private URI getURI() {
+    /**
+     * Method to get the {@link URI} from a possibly opaque
+     * {@code getRepository().getUrl()}.
+     *
+     * @return  The {@link URI}.
+     */
+    protected URI getURI() {
         if (uri == null) {
             URI ssp = URI.create(getRepository().getUrl());
 
@@ -85,6 +138,24 @@ public abstract class AbstractWagonProvider extends AbstractWagon {
      */
     protected String getPath() { return getURI().getPath(); }
 
+    /**
+     * Method to open the {@link ObjectStore} backend for
+     * {@code getRepository()}.  Called once per connection.
+     *
+     * @return  The {@link ObjectStore}.
+     *
+     * @throws  Exception       If the {@link ObjectStore} cannot be
+     *                          opened.
+     */
+    protected abstract ObjectStore open() throws Exception;
+
+    /**
+     * Method to get the connected {@link ObjectStore}.
+     *
+     * @return  The {@link ObjectStore} (or {@code null} if not connected).
+     */
+    protected ObjectStore getObjectStore() { return store; }
+
     /**
      * Method to calculate bucket key prefix from
      * {@code getRepository().getBasedir()}.
@@ -130,6 +201,351 @@ public abstract class AbstractWagonProvider extends AbstractWagon {
         return type;
     }
 
+    /**
+     * Method to get the {@link TransferScheduler} shared by all
+     * {@link AbstractWagonProvider} instances.
+     *
+     * @return  The {@link TransferScheduler}.
+     */
+    public static TransferScheduler getTransferScheduler() {
+        return SCHEDULER;
+    }
+
+    /**
+     * Method to wait for admission from the shared
+     * {@link TransferScheduler}.
+     *
+     * @param   operation       The {@link Operation}.
+     * @param   name            The resource name.
+     * @param   length          The transfer length if known, {@code -1}
+     *                          otherwise.
+     *
+     * @return  The {@link TransferScheduler.Permit} which must be closed
+     *          on completion.
+     *
+     * @throws  TransferFailedException
+     *                          If interrupted while waiting.
+     */
+    protected TransferScheduler.Permit acquire(Operation operation, String name, long length) throws TransferFailedException {
+        return SCHEDULER.acquire(operation, lane(operation, name, length), name);
+    }
+
+    /**
+     * Method to determine the {@link TransferScheduler} {@link Lane} for a
+     * transfer.  Existence checks, listings, repository metadata, POMs,
+     * checksums, signatures, and small objects are prioritized.
+     *
+     * @param   operation       The {@link Operation}.
+     * @param   name            The resource name.
+     * @param   length          The transfer length if known, {@code -1}
+     *                          otherwise.
+     *
+     * @return  The {@link Lane}.
+     */
+    protected Lane lane(Operation operation, String name, long length) {
+        Lane lane = Lane.BULK;
+
+        switch (operation) {
+        case HEAD:
+        case LIST:
+            lane = Lane.PRIORITY;
+            break;
+
+        default:
+            String file = name.substring(name.lastIndexOf(DELIMITER) + 1);
+
+            if (PRIORITY.matcher(file).matches()
+                || (0 <= length && length <= smallObjectSize)) {
+                lane = Lane.PRIORITY;
+            }
+            break;
+        }
+
+        return lane;
+    }
+
+    @Override
+    public void disconnect() throws ConnectionException {
+        super.disconnect();
+
+        for (Lane lane : Lane.values()) {
+            TransferScheduler.Delay delay = SCHEDULER.getQueueingDelay(lane);
+
+            log.debug("{} queueing delay: count={}, average={} ms, maximum={} ms",
+                      lane, delay.getCount(),
+                      TimeUnit.NANOSECONDS.toMillis(delay.getAverage()),
+                      TimeUnit.NANOSECONDS.toMillis(delay.getMaximum()));
+        }
+    }
+
+    /**
+     * Method to validate {@link #getBandwidth()} and
+     * {@link #getConcurrency()} and apply them to the shared
+     * {@link TransferScheduler}.  The scheduler is shared by every
+     * {@link AbstractWagonProvider} in the JVM so the settings of the
+     * most recently connected repository apply: an unspecified bandwidth
+     * removes the cap and unspecified limits revert to their defaults.
+     *
+     * @throws  ConnectionException
+     *                          If a setting is invalid.
+     */
+    protected void configure() throws ConnectionException {
+        EnumMap<Operation,Integer> limits = new EnumMap<>(Operation.class);
+
+        if (concurrency != null) {
+            for (String key : concurrency.stringPropertyNames()) {
+                String value = concurrency.getProperty(key);
+
+                try {
+                    Operation operation = Operation.valueOf(key.trim().toUpperCase());
+                    int limit = Integer.parseInt(value.trim());
+
+                    if (limit < 1) {
+                        throw new IllegalArgumentException(key + "=" + value);
+                    }
+
+                    limits.put(operation, limit);
+                } catch (IllegalArgumentException exception) {
+                    throw new ConnectionException(getRepository().getId()
+                                                  + ": Invalid concurrency setting "
+                                                  + key + "=" + value
+                                                  + " (expected get, put, head, or list"
+                                                  + " with a positive integer limit)",
+                                                  exception);
+                }
+            }
+        }
+
+        if (bandwidth != null && bandwidth < 1) {
+            throw new ConnectionException(getRepository().getId()
+                                          + ": Invalid bandwidth setting " + bandwidth
+                                          + " (expected a positive number of bytes per second)");
+        }
+
+        SCHEDULER.configure((bandwidth != null) ? bandwidth : 0, limits);
+    }
+
+    @Override
+    protected void openConnectionInternal() throws ConnectionException, AuthenticationException {
+        configure();
+
+        try {
+            if (store == null) {
+                synchronized (this) {
+                    if (store == null) {
+                        store = open();
+                    }
+                }
+            }
+        } catch (Exception exception) {
+            if (exception instanceof AuthenticationException) {
+                throw (AuthenticationException) exception;
+            } else {
+                throw new AuthenticationException(getRepository().toString(), exception);
+            }
+        }
+    }
+
+    @Override
+    public void closeConnection() {
+        ObjectStore store = null;
+
+        synchronized (this) {
+            store = this.store;
+            this.store = null;
+            uri = null;
+            prefix = null;
+        }
+
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException exception) {
+                log.warn("{}: {}", getRepository(), exception.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void get(String source, File target) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        Resource resource = new Resource(source);
+
+        fireGetInitiated(resource, target);
+        createParentDirectories(target);
+        fireGetStarted(resource, target);
+
+        try {
+            ObjectStore.Metadata metadata = head(source);
+
+            if (metadata != null) {
+                resource.setContentLength(metadata.getLength());
+                resource.setLastModified(metadata.getLastModified());
+
+                try (TransferScheduler.Permit permit = acquire(Operation.GET, source, metadata.getLength())) {
+                    if (permit.isThrottled()) {
+                        try (InputStream in = permit.throttle(store.get(prefix() + source, 0, -1))) {
+                            Files.copy(in, target.toPath(), REPLACE_EXISTING);
+                        }
+                    } else {
+                        permit.charge(metadata.getLength());
+                        store.get(prefix() + source, target);
+                    }
+                }
+            } else {
+                throw new ResourceDoesNotExistException(source);
+            }
+        } catch (Exception exception) {
+            if (exception instanceof TransferFailedException) {
+                throw (TransferFailedException) exception;
+            } else if (exception instanceof ResourceDoesNotExistException) {
+                throw (ResourceDoesNotExistException) exception;
+            } else if (exception instanceof AuthorizationException) {
+                throw (AuthorizationException) exception;
+            } else if (exception instanceof NoSuchFileException) {
+                throw new ResourceDoesNotExistException(source, exception);
+            } else {
+                throw new TransferFailedException(target + " <- " + source, exception);
+            }
+        }
+
+        postProcessListeners(resource, target, TransferEvent.REQUEST_GET);
+        fireGetCompleted(resource, target);
+    }
+
+    @Override
+    public boolean getIfNewer(String source, File target, long timestamp) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        boolean newer = false;
+        ObjectStore.Metadata metadata = null;
+
+        try {
+            metadata = head(source);
+        } catch (Exception exception) {
+            if (exception instanceof TransferFailedException) {
+                throw (TransferFailedException) exception;
+            } else if (exception instanceof AuthorizationException) {
+                throw (AuthorizationException) exception;
+            } else {
+                throw new TransferFailedException(source, exception);
+            }
+        }
+
+        if (metadata != null) {
+            newer = metadata.getLastModified() > timestamp;
+        } else {
+            throw new ResourceDoesNotExistException(source);
+        }
+
+        if (newer) {
+            get(source, target);
+        }
+
+        return newer;
+    }
+
+    @Override
+    public void put(File source, String target) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        Resource resource = new Resource(target);
+
+        resource.setContentLength(source.length());
+        resource.setLastModified(source.lastModified());
+
+        firePutInitiated(resource, source);
+        firePutStarted(resource, source);
+
+        try (TransferScheduler.Permit permit = acquire(Operation.PUT, target, source.length())) {
+            String type = probeContentType(source);
+
+            if (permit.isThrottled()) {
+                try (InputStream in = permit.throttle(new FileInputStream(source))) {
+                    store.put(prefix() + target, in, source.length(), type);
+                }
+            } else {
+                permit.charge(source.length());
+                store.put(prefix() + target, source, type);
+            }
+        } catch (Exception exception) {
+            if (exception instanceof TransferFailedException) {
+                throw (TransferFailedException) exception;
+            } else if (exception instanceof ResourceDoesNotExistException) {
+                throw (ResourceDoesNotExistException) exception;
+            } else if (exception instanceof AuthorizationException) {
+                throw (AuthorizationException) exception;
+            } else {
+                throw new TransferFailedException(source + " -> " + target, exception);
+            }
+        }
+
+        postProcessListeners(resource, source, TransferEvent.REQUEST_PUT);
+        firePutCompleted(resource, source);
+    }
+
+    @Override
+    public boolean resourceExists(String name) throws TransferFailedException, AuthorizationException {
+        boolean exists = false;
+
+        try {
+            exists = head(name) != null;
+        } catch (Exception exception) {
+            if (exception instanceof TransferFailedException) {
+                throw (TransferFailedException) exception;
+            } else if (exception instanceof AuthorizationException) {
+                throw (AuthorizationException) exception;
+            } else {
+                throw new TransferFailedException(name, exception);
+            }
+        }
+
+        return exists;
+    }
+
+    @Override
+    public List<String> getFileList(String name) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        TreeSet<String> set = new TreeSet<>();
+        String prefix = prefix();
+
+        name = strip(name, DELIMITER);
+
+        if (isNotEmpty(name)) {
+            prefix += name + DELIMITER;
+        }
+
+        try {
+            TransferScheduler.Permit permit = acquire(Operation.LIST, name, -1);
+
+            try {
+                for (String key : store.list(prefix, DELIMITER)) {
+                    key = key.substring(prefix.length());
+
+                    if (isNotEmpty(key)) {
+                        set.add(key);
+                    }
+                }
+            } finally {
+                permit.close();
+            }
+        } catch (Exception exception) {
+            if (exception instanceof TransferFailedException) {
+                throw (TransferFailedException) exception;
+            } else if (exception instanceof AuthorizationException) {
+                throw (AuthorizationException) exception;
+            } else {
+                throw new TransferFailedException(name, exception);
+            }
+        }
+
+        return set.stream().collect(toList());
+    }
+
+    private ObjectStore.Metadata head(String name) throws Exception {
+        TransferScheduler.Permit permit = acquire(Operation.HEAD, name, -1);
+
+        try {
+            return store.head(prefix() + name);
+        } finally {
+            permit.close();
+        }
+    }
+
     @Override
     public boolean supportsDirectoryCopy() { return false; }
 
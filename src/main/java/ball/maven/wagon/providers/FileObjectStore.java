@@ -0,0 +1,315 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import lombok.NonNull;
+import lombok.ToString;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+
+/**
+ * Local file system {@link ObjectStore} implementation.  Keys are
+ * resolved against a root directory, reads are served from memory-mapped
+ * {@link FileChannel} regions, and writes are staged to a temporary file
+ * and moved into place so readers never observe a partial object.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+@ToString
+public class FileObjectStore implements ObjectStore {
+
+    /**
+     * {@link #CHUNK} = {@value #CHUNK}
+     */
+    private static final long CHUNK = 64L * 1024 * 1024;
+
+    private static final String TMP = ".tmp";
+
+    private final Path root;
+
+    /**
+     * Sole constructor.
+     *
+     * @param   root            The root directory.
+     */
+    public FileObjectStore(@NonNull Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    private Path resolve(String key) throws IOException {
+        Path path = root.resolve(key).normalize();
+
+        if (! path.startsWith(root)) {
+            throw new NoSuchFileException(key);
+        }
+
+        return path;
+    }
+
+    @Override
+    public Metadata head(String key) throws IOException {
+        Metadata metadata = null;
+        Path path = root.resolve(key).normalize();
+
+        if (path.startsWith(root) && Files.isRegularFile(path)) {
+            BasicFileAttributes attributes =
+                Files.readAttributes(path, BasicFileAttributes.class);
+
+            metadata =
+                new Metadata(attributes.size(),
+                             attributes.lastModifiedTime().toMillis(),
+                             null);
+        }
+
+        return metadata;
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset=" + offset);
+        }
+
+        FileChannel channel = FileChannel.open(resolve(key), READ);
+        long end = channel.size();
+
+        if (length >= 0) {
+            end = Math.min(end, offset + length);
+        }
+
+        return new MappedInputStream(channel, Math.min(offset, end), end);
+    }
+
+    @Override
+    public void get(String key, File target) throws IOException {
+        try (FileChannel in = FileChannel.open(resolve(key), READ);
+             FileChannel out = FileChannel.open(target.toPath(), CREATE, WRITE, TRUNCATE_EXISTING)) {
+            long position = 0;
+            long size = in.size();
+
+            while (position < size) {
+                ByteBuffer buffer = in.map(READ_ONLY, position, Math.min(CHUNK, size - position));
+
+                position += buffer.remaining();
+
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length, String type) throws IOException {
+        Path path = resolve(key);
+        Path tmp = stage(path, in);
+
+        try {
+            Files.move(tmp, path, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public void put(String key, File source, String type) throws IOException {
+        Path path = resolve(key);
+        Path tmp = stage(path, source);
+
+        try {
+            Files.move(tmp, path, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, File source, String type) throws IOException {
+        boolean created = false;
+        Path path = resolve(key);
+        Path tmp = stage(path, source);
+
+        try {
+            Files.createLink(path, tmp);
+            created = true;
+        } catch (FileAlreadyExistsException exception) {
+            created = false;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        return created;
+    }
+
+    private Path stage(Path path, File source) throws IOException {
+        Path tmp = stage(path);
+        boolean staged = false;
+
+        try {
+            Files.copy(source.toPath(), tmp, REPLACE_EXISTING);
+            staged = true;
+        } finally {
+            if (! staged) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        return tmp;
+    }
+
+    private Path stage(Path path, InputStream in) throws IOException {
+        Path tmp = stage(path);
+        boolean staged = false;
+
+        try {
+            Files.copy(in, tmp, REPLACE_EXISTING);
+            staged = true;
+        } finally {
+            if (! staged) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        return tmp;
+    }
+
+    private Path stage(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        return Files.createTempFile(path.getParent(), "." + path.getFileName(), TMP);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only {@link AbstractWagonProvider#DELIMITER} (or {@code null}) is
+     * supported as a {@code delimiter}.
+     */
+    @Override
+    public List<String> list(String prefix, String delimiter) throws IOException {
+        if (delimiter != null && (! AbstractWagonProvider.DELIMITER.equals(delimiter))) {
+            throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+        }
+
+        TreeSet<String> set = new TreeSet<>();
+        int index = prefix.lastIndexOf(AbstractWagonProvider.DELIMITER) + 1;
+        Path directory = resolve(prefix.substring(0, index));
+
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> stream =
+                     (delimiter != null) ? Files.list(directory) : Files.walk(directory)) {
+                stream
+                    .filter(t -> ! (Files.isDirectory(t) && delimiter == null))
+                    .filter(t -> ! isStaged(t))
+                    .map(t -> key(t) + (Files.isDirectory(t) ? delimiter : EMPTY))
+                    .filter(t -> t.startsWith(prefix))
+                    .forEach(set::add);
+            }
+        }
+
+        return set.stream().collect(toList());
+    }
+
+    private boolean isStaged(Path path) {
+        String name = path.getFileName().toString();
+
+        return name.startsWith(".") && name.endsWith(TMP);
+    }
+
+    private String key(Path path) {
+        return root.relativize(path).toString()
+            .replace(File.separator, AbstractWagonProvider.DELIMITER);
+    }
+
+    private static class MappedInputStream extends InputStream {
+        private static final ByteBuffer NONE = ByteBuffer.allocate(0);
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+        private ByteBuffer buffer = NONE;
+
+        public MappedInputStream(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        private boolean fill() throws IOException {
+            if (! buffer.hasRemaining() && position < end) {
+                long size = Math.min(CHUNK, end - position);
+
+                buffer = channel.map(READ_ONLY, position, size);
+                position += size;
+            }
+
+            return buffer.hasRemaining();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int count = 0;
+
+            if (length > 0) {
+                if (fill()) {
+                    count = Math.min(length, buffer.remaining());
+                    buffer.get(bytes, offset, count);
+                } else {
+                    count = -1;
+                }
+            }
+
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return buffer.remaining();
+        }
+
+        @Override
+        public void close() throws IOException { channel.close(); }
+    }
+}
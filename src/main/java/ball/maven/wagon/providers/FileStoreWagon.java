@@ -0,0 +1,56 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.net.URI;
+import java.nio.file.Paths;
+import javax.inject.Named;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.wagon.Wagon;
+
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+
+/**
+ * Memory-mapped local file system {@link Wagon} implementation
+ * ({@code file-store:///path}).  The {@link FileObjectStore} is rooted at
+ * the repository directory so keys are not prefixed.  Intended as a
+ * deterministic, zero-network baseline.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+@Named("file-store")
+@NoArgsConstructor @ToString @Slf4j
+public class FileStoreWagon extends AbstractWagonProvider {
+    @Override
+    protected ObjectStore open() throws Exception {
+        if (isNotEmpty(getHost())) {
+            throw new IllegalArgumentException(getRepository().getUrl()
+                                               + ": Host not supported"
+                                               + " (use file-store:///path)");
+        }
+
+        return new FileObjectStore(Paths.get(new URI("file", null, getPath(), null)));
+    }
+
+    @Override
+    protected String prefix() { return EMPTY; }
+}
@@ -0,0 +1,209 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Bucket;
+import com.google.cloud.storage.StorageException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import static com.google.cloud.storage.Bucket.BlobWriteOption;
+import static com.google.cloud.storage.Storage.BlobListOption;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Google Storage {@link ObjectStore} implementation.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+@RequiredArgsConstructor @ToString
+public class GSObjectStore implements ObjectStore {
+    private static final int PRECONDITION_FAILED = 412;
+
+    @NonNull private final Bucket bucket;
+
+    @Override
+    public Metadata head(String key) throws IOException {
+        Metadata metadata = null;
+        Blob blob = bucket.get(key);
+
+        if (blob != null) {
+            metadata =
+                new Metadata(blob.getSize(), blob.getUpdateTime(),
+                             blob.getContentType());
+        }
+
+        return metadata;
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        Blob blob = bucket.get(key);
+
+        if (blob == null) {
+            throw new NoSuchFileException(key);
+        }
+
+        ReadChannel reader = blob.reader();
+
+        reader.seek(offset);
+
+        InputStream in = Channels.newInputStream(reader);
+
+        return (length >= 0) ? new RangeInputStream(in, length) : in;
+    }
+
+    @Override
+    public void get(String key, File target) throws IOException {
+        Blob blob = bucket.get(key);
+
+        if (blob == null) {
+            throw new NoSuchFileException(key);
+        }
+
+        blob.downloadTo(target.toPath());
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length, String type) throws IOException {
+        Blob blob = bucket.get(key);
+
+        if (blob != null) {
+            blob.delete();
+        }
+
+        bucket.create(key, in, type);
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, File source, String type) throws IOException {
+        boolean created = false;
+
+        try (FileInputStream in = new FileInputStream(source)) {
+            bucket.create(key, in, type, BlobWriteOption.doesNotExist());
+            created = true;
+        } catch (StorageException exception) {
+            if (exception.getCode() != PRECONDITION_FAILED) {
+                throw exception;
+            }
+        }
+
+        return created;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only {@link AbstractWagonProvider#DELIMITER} (or {@code null}) is
+     * supported as a {@code delimiter}.
+     */
+    @Override
+    public List<String> list(String prefix, String delimiter) throws IOException {
+        TreeSet<String> set = new TreeSet<>();
+        List<BlobListOption> options = new ArrayList<>();
+
+        options.add(BlobListOption.prefix(prefix));
+
+        if (delimiter != null) {
+            if (! AbstractWagonProvider.DELIMITER.equals(delimiter)) {
+                throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+            }
+
+            options.add(BlobListOption.currentDirectory());
+        }
+
+        for (Blob blob : bucket.list(options.toArray(new BlobListOption[] { })).iterateAll()) {
+            set.add(blob.getName());
+        }
+
+        return set.stream().collect(toList());
+    }
+
+    private static class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        public RangeInputStream(InputStream in, long length) {
+            super(in);
+
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = -1;
+
+            if (remaining > 0) {
+                read = super.read();
+
+                if (read >= 0) {
+                    remaining -= 1;
+                }
+            }
+
+            return read;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int count = -1;
+
+            if (remaining > 0) {
+                count = super.read(bytes, offset, (int) Math.min(length, remaining));
+
+                if (count > 0) {
+                    remaining -= count;
+                }
+            } else if (length == 0) {
+                count = 0;
+            }
+
+            return count;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            long skipped = super.skip(Math.min(count, remaining));
+
+            remaining -= skipped;
+
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() { return false; }
+    }
+}
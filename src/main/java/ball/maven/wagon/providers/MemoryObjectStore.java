@@ -0,0 +1,142 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Concurrent in-memory {@link ObjectStore} implementation.  Objects are
+ * held in a {@link ConcurrentSkipListMap} so prefix listings are ordered
+ * range scans.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+@NoArgsConstructor @ToString
+public class MemoryObjectStore implements ObjectStore {
+    @ToString.Exclude
+    private final ConcurrentNavigableMap<String,Entry> map = new ConcurrentSkipListMap<>();
+
+    @Override
+    public Metadata head(String key) throws IOException {
+        Entry entry = map.get(key);
+
+        return (entry != null) ? entry.metadata() : null;
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset=" + offset);
+        }
+
+        Entry entry = map.get(key);
+
+        if (entry == null) {
+            throw new NoSuchFileException(key);
+        }
+
+        int start = (int) Math.min(offset, entry.bytes.length);
+        int count = entry.bytes.length - start;
+
+        if (length >= 0) {
+            count = (int) Math.min(count, length);
+        }
+
+        return new ByteArrayInputStream(entry.bytes, start, count);
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length, String type) throws IOException {
+        map.put(key, new Entry(in, type));
+    }
+
+    @Override
+    public void put(String key, File source, String type) throws IOException {
+        map.put(key, new Entry(Files.readAllBytes(source.toPath()), type));
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, File source, String type) throws IOException {
+        return map.putIfAbsent(key, new Entry(Files.readAllBytes(source.toPath()), type)) == null;
+    }
+
+    @Override
+    public List<String> list(String prefix, String delimiter) throws IOException {
+        TreeSet<String> set = new TreeSet<>();
+
+        for (String key : map.tailMap(prefix).keySet()) {
+            if (! key.startsWith(prefix)) {
+                break;
+            }
+
+            int index =
+                (delimiter != null) ? key.indexOf(delimiter, prefix.length()) : -1;
+
+            set.add((index < 0) ? key : key.substring(0, index + delimiter.length()));
+        }
+
+        return set.stream().collect(toList());
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final byte[] bytes;
+        private final long lastModified;
+        private final String type;
+
+        public Entry(byte[] bytes, String type) {
+            this(bytes, System.currentTimeMillis(), type);
+        }
+
+        public Entry(InputStream in, String type) throws IOException {
+            this(read(in), type);
+        }
+
+        private static byte[] read(InputStream in) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count = 0;
+
+            while ((count = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, count);
+            }
+
+            return out.toByteArray();
+        }
+
+        public Metadata metadata() {
+            return new Metadata(bytes.length, lastModified, type);
+        }
+    }
+}
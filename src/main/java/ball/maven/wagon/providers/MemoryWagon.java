@@ -0,0 +1,48 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.inject.Named;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.wagon.Wagon;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+
+/**
+ * In-memory {@link Wagon} implementation ({@code mem://name/path}).
+ * Stores are named by the URL host and live for the lifetime of the JVM
+ * so every {@link MemoryWagon} naming the same store sees the same
+ * content.  Intended as a deterministic, zero-network baseline.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+@Named("mem")
+@NoArgsConstructor @ToString @Slf4j
+public class MemoryWagon extends AbstractWagonProvider {
+    private static final Map<String,MemoryObjectStore> STORES = new ConcurrentHashMap<>();
+
+    @Override
+    protected ObjectStore open() throws Exception {
+        return STORES.computeIfAbsent(defaultString(getHost()), k -> new MemoryObjectStore());
+    }
+}
@@ -0,0 +1,476 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import javax.inject.Named;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.repository.Repository;
+
+import static java.util.Map.Entry.comparingByKey;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Mirror-aware {@link Wagon} implementation.  The repository URL names
+ * the primary location (e.g., {@code mirror:s3://bucket/path}) and
+ * {@link #getMirrors()} lists additional {@code s3://}, {@code gs://},
+ * {@code mem://}, or {@code file-store://} locations holding the same
+ * content.  Reads are sent to the location with the lowest moving-average
+ * latency and fail over to the next location on errors or missing
+ * resources (e.g., during replication lag).  A location which has not
+ * been asked for {@link #getProbeInterval()} milliseconds is asked first
+ * once so a penalized or demoted location may recover.  Writes are sent
+ * to the primary location only.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+@Named("mirror")
+@NoArgsConstructor @ToString @Slf4j
+public class MirrorWagon extends AbstractWagonProvider {
+
+    /**
+     * {@link #ALPHA} = {@value #ALPHA}
+     */
+    private static final double ALPHA = 0.2;
+
+    /**
+     * Minimum failure penalty (nanoseconds).
+     * {@link #PENALTY} = {@value #PENALTY}
+     */
+    private static final long PENALTY = 1_000_000_000L;
+
+    private static final Map<String,Latency> LATENCIES = new ConcurrentHashMap<>();
+
+    @Getter @Setter private List<String> mirrors = new ArrayList<>();
+    @Getter @Setter private String profile = null;
+    @Getter @Setter private String region = null;
+    @Getter @Setter private File credentials = null;
+
+    /**
+     * Minimum interval (milliseconds) between probes of a location that
+     * would not otherwise be asked first.
+     */
+    @Getter @Setter private long probeInterval = 60_000;
+
+    @Override
+    protected ObjectStore open() throws Exception {
+        List<Location> locations = new ArrayList<>();
+
+        locations.add(new Location(getURI().toString()));
+
+        if (mirrors != null) {
+            for (String mirror : mirrors) {
+                try {
+                    locations.add(new Location(mirror.trim()));
+                } catch (Exception exception) {
+                    log.warn("{}: {}", mirror, exception.getMessage());
+                }
+            }
+        }
+
+        return new Store(locations);
+    }
+
+    /**
+     * Method to create the {@link AbstractWagonProvider} for a location.
+     * Subclasses may override to support additional schemes.
+     *
+     * @param   uri             The location {@link URI}.
+     *
+     * @return  The (unconnected) {@link AbstractWagonProvider}.
+     */
+    protected AbstractWagonProvider newWagon(URI uri) {
+        AbstractWagonProvider wagon = null;
+
+        switch (String.valueOf(uri.getScheme())) {
+        case "s3":
+            S3Wagon s3 = new S3Wagon();
+
+            s3.setProfile(profile);
+            s3.setRegion(region);
+
+            wagon = s3;
+            break;
+
+        case "gs":
+            GSWagon gs = new GSWagon();
+
+            gs.setCredentials(credentials);
+
+            wagon = gs;
+            break;
+
+        case "mem":
+            wagon = new MemoryWagon();
+            break;
+
+        case "file-store":
+            wagon = new FileStoreWagon();
+            break;
+
+        default:
+            throw new IllegalArgumentException("Unsupported mirror: " + uri);
+        }
+
+        return wagon;
+    }
+
+    @FunctionalInterface
+    private interface Read<T> {
+        T apply(Location location, String key) throws IOException;
+    }
+
+    /**
+     * {@link ObjectStore} which reads from the {@link Location}s in order
+     * of increasing average latency and writes to the primary
+     * {@link Location}.  Keys are translated from this wagon's prefix to
+     * each {@link Location}'s prefix.
+     */
+    @ToString
+    private class Store implements ObjectStore {
+        private final List<Location> locations;
+
+        public Store(List<Location> locations) { this.locations = locations; }
+
+        @Override
+        public Metadata head(String key) throws IOException {
+            return read(key, (t, k) -> t.store().head(k), t -> (t == null), true);
+        }
+
+        @Override
+        public InputStream get(String key, long offset, long length) throws IOException {
+            return read(key, (t, k) -> t.store().get(k, offset, length), t -> false, true);
+        }
+
+        /*
+         * Whole-object download times depend on size rather than location
+         * so they are not sampled (except to penalize failures).
+         */
+        @Override
+        public void get(String key, File target) throws IOException {
+            read(key, (t, k) -> { t.store().get(k, target); return true; }, t -> false, false);
+        }
+
+        @Override
+        public void put(String key, InputStream in, long length, String type) throws IOException {
+            Location primary = locations.get(0);
+
+            primary.store().put(primary.key(key), in, length, type);
+        }
+
+        @Override
+        public void put(String key, File source, String type) throws IOException {
+            Location primary = locations.get(0);
+
+            primary.store().put(primary.key(key), source, type);
+        }
+
+        @Override
+        public boolean putIfAbsent(String key, File source, String type) throws IOException {
+            Location primary = locations.get(0);
+
+            return primary.store().putIfAbsent(primary.key(key), source, type);
+        }
+
+        @Override
+        public List<String> list(String prefix, String delimiter) throws IOException {
+            return read(prefix,
+                        (t, k) -> (t.store().list(k, delimiter).stream()
+                                   .map(u -> prefix() + u.substring(t.prefix().length()))
+                                   .collect(toList())),
+                        t -> t.isEmpty(), true);
+        }
+
+        /**
+         * Method to apply a read operation to each location in order of
+         * increasing average latency until one succeeds with a result
+         * that is not a "miss."  A lagging mirror answers "not found"
+         * quickly so a miss is only sampled at its own latency if no
+         * location has the object; otherwise the missing location is
+         * demoted behind every location that has not missed until it
+         * answers again.  Errors are penalized so a failing location
+         * sorts behind healthy ones.
+         *
+         * @param   key             The object key.
+         * @param   read            The {@link Read} operation.
+         * @param   miss            The {@link Predicate} to test whether a
+         *                          result should fail over to the next
+         *                          location.
+         * @param   sample          Whether timings update the locations'
+         *                          latencies (failures are always
+         *                          penalized).
+         *
+         * @return  The result from the first successful location, or the
+         *          last "miss" if no location succeeded otherwise.
+         */
+        private <T> T read(String key, Read<T> read, Predicate<T> miss, boolean sample) throws IOException {
+            T result = null;
+            boolean answered = false;
+            Location found = null;
+            Map<Location,Long> misses = new LinkedHashMap<>();
+            NoSuchFileException missing = null;
+            Exception failure = null;
+            long begin = System.nanoTime();
+
+            for (Location location : ordered()) {
+                long start = System.nanoTime();
+
+                location.latency.tried(start);
+
+                try {
+                    result = read.apply(location, location.key(key));
+                    answered = true;
+
+                    if (miss.test(result)) {
+                        log.debug("{}: Miss at {}", key, location.url);
+                        misses.put(location, System.nanoTime() - start);
+                        continue;
+                    }
+
+                    found = location;
+
+                    if (sample) {
+                        location.latency.update(System.nanoTime() - start);
+                    }
+
+                    break;
+                } catch (NoSuchFileException exception) {
+                    log.debug("{}: Not found at {}", key, location.url);
+                    misses.put(location, System.nanoTime() - start);
+                    missing = exception;
+                } catch (Exception exception) {
+                    location.latency.penalize(Math.max(System.nanoTime() - start, penalty()));
+                    log.debug("{}: Failed at {}: {}", key, location.url, exception.getMessage());
+                    failure = exception;
+                }
+            }
+
+            if (sample) {
+                long elapsed = System.nanoTime() - begin;
+
+                for (Map.Entry<Location,Long> entry : misses.entrySet()) {
+                    if (found != null) {
+                        entry.getKey().latency.demote(elapsed);
+                    } else {
+                        entry.getKey().latency.miss(entry.getValue());
+                    }
+                }
+            }
+
+            if (! answered) {
+                if (failure != null) {
+                    if (failure instanceof IOException) {
+                        throw (IOException) failure;
+                    } else if (failure instanceof RuntimeException) {
+                        throw (RuntimeException) failure;
+                    } else {
+                        throw new IOException(key, failure);
+                    }
+                } else if (missing != null) {
+                    throw missing;
+                }
+            }
+
+            return result;
+        }
+
+        /*
+         * Failure penalty: twice the worst healthy average (and at least
+         * PENALTY) so a location that fails fast sorts behind every
+         * healthy location.
+         */
+        private long penalty() {
+            double worst =
+                locations.stream()
+                .filter(t -> t.latency.isHealthy())
+                .mapToDouble(t -> t.latency.average())
+                .max().orElse(0);
+
+            return Math.max(PENALTY, (long) (2 * worst));
+        }
+
+        /*
+         * Locations in order of increasing average latency (demoted
+         * locations last) except that the first location not asked within
+         * the probe interval (if any) is moved to the front.
+         */
+        private List<Location> ordered() {
+            List<Location> list =
+                locations.stream()
+                .map(t -> new SimpleImmutableEntry<>(t.latency.rank(), t))
+                .sorted(comparingByKey())
+                .map(t -> t.getValue())
+                .collect(toList());
+            long now = System.nanoTime();
+            long interval = TimeUnit.MILLISECONDS.toNanos(probeInterval);
+
+            for (int i = 1; i < list.size(); i += 1) {
+                if (list.get(i).latency.probe(now, interval)) {
+                    list.add(0, list.remove(i));
+                    break;
+                }
+            }
+
+            return list;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Location location : locations) {
+                try {
+                    location.wagon.disconnect();
+                } catch (Exception exception) {
+                    log.warn("{}: {}", location.url, exception.getMessage());
+                }
+            }
+        }
+    }
+
+    @ToString
+    private class Location {
+        private final String url;
+        private final AbstractWagonProvider wagon;
+        private final Latency latency;
+
+        public Location(String url) throws Exception {
+            this.url = url;
+            this.wagon = newWagon(URI.create(url));
+            this.latency = LATENCIES.computeIfAbsent(url, k -> new Latency());
+
+            wagon.setBandwidth(getBandwidth());
+            wagon.setConcurrency(getConcurrency());
+            wagon.setSmallObjectSize(getSmallObjectSize());
+            wagon.setTimeout(getTimeout());
+            wagon.setReadTimeout(getReadTimeout());
+            wagon.connect(new Repository(getRepository().getId(), url),
+                          getAuthenticationInfo());
+        }
+
+        public ObjectStore store() { return wagon.getObjectStore(); }
+
+        public String prefix() { return wagon.prefix(); }
+
+        public String key(String key) {
+            return prefix() + key.substring(MirrorWagon.this.prefix().length());
+        }
+    }
+
+    /**
+     * Exponentially-weighted moving average of observed latencies.
+     * Instances are shared by URL across {@link MirrorWagon} instances so
+     * measurements survive reconnection.
+     */
+    @ToString
+    private static class Latency {
+        private long count = 0;
+        private double average = 0;
+        private boolean healthy = true;
+        private boolean demoted = false;
+        private long tried = System.nanoTime();
+
+        public synchronized double average() { return average; }
+
+        public synchronized boolean isHealthy() { return healthy; }
+
+        public synchronized Rank rank() { return new Rank(demoted, average); }
+
+        public synchronized void tried(long now) { tried = now; }
+
+        /*
+         * Claims a probe if the location has not been asked within
+         * interval nanoseconds.
+         */
+        public synchronized boolean probe(long now, long interval) {
+            boolean probe = (now - tried) >= interval;
+
+            if (probe) {
+                tried = now;
+            }
+
+            return probe;
+        }
+
+        /*
+         * A successful answer from a penalized location restarts the
+         * average so a past failure does not outweigh the recovery.
+         */
+        public synchronized void update(long nanos) {
+            if (! healthy) {
+                count = 0;
+            }
+
+            sample(nanos);
+            healthy = true;
+            demoted = false;
+        }
+
+        public synchronized void miss(long nanos) {
+            sample(nanos);
+        }
+
+        public synchronized void demote(long nanos) {
+            sample(nanos);
+            demoted = true;
+        }
+
+        public synchronized void penalize(long nanos) {
+            sample(nanos);
+            healthy = false;
+        }
+
+        private void sample(long nanos) {
+            average = (count++ > 0) ? (ALPHA * nanos + (1 - ALPHA) * average) : nanos;
+        }
+    }
+
+    /**
+     * {@link Latency} snapshot for ordering: demoted locations sort after
+     * the others and ties are broken by average latency.
+     */
+    @AllArgsConstructor @ToString
+    private static class Rank implements Comparable<Rank> {
+        private final boolean demoted;
+        private final double average;
+
+        @Override
+        public int compareTo(Rank that) {
+            int difference = Boolean.compare(this.demoted, that.demoted);
+
+            return (difference != 0) ? difference : Double.compare(this.average, that.average);
+        }
+    }
+}
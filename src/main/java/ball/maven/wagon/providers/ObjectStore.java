@@ -0,0 +1,164 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Object-store backend interface.  {@link AbstractWagonProvider}
+ * implements the {@link org.apache.maven.wagon.Wagon} transfer pipeline
+ * (events, scheduling, and exception translation) once over this
+ * interface.  Keys are complete (already prefixed) object names.
+ * Missing objects are reported by returning {@code null} from
+ * {@link #head(String)} or by throwing {@link NoSuchFileException}.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+public interface ObjectStore extends Closeable {
+
+    /**
+     * Method to get an object's {@link Metadata}.
+     *
+     * @param   key             The object key.
+     *
+     * @return  The {@link Metadata} or {@code null} if the object does not
+     *          exist.
+     *
+     * @throws  IOException     If an I/O error occurs.
+     */
+    public Metadata head(String key) throws IOException;
+
+    /**
+     * Method to read a range of an object.
+     *
+     * @param   key             The object key.
+     * @param   offset          The offset of the first byte.
+     * @param   length          The number of bytes or {@code -1} to read
+     *                          to the end of the object.
+     *
+     * @return  The {@link InputStream} (must be closed by the caller).
+     *
+     * @throws  NoSuchFileException
+     *                          If the object does not exist.
+     * @throws  IOException     If an I/O error occurs.
+     */
+    public InputStream get(String key, long offset, long length) throws IOException;
+
+    /**
+     * Method to download an object to a {@link File}.  The default
+     * implementation copies {@link #get(String,long,long)}; backends
+     * should override where the SDK offers a more efficient transfer.
+     *
+     * @param   key             The object key.
+     * @param   target          The target {@link File}.
+     *
+     * @throws  NoSuchFileException
+     *                          If the object does not exist.
+     * @throws  IOException     If an I/O error occurs.
+     */
+    default void get(String key, File target) throws IOException {
+        try (InputStream in = get(key, 0, -1)) {
+            Files.copy(in, target.toPath(), REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Method to create or replace an object from an {@link InputStream}.
+     *
+     * @param   key             The object key.
+     * @param   in              The source {@link InputStream}.
+     * @param   length          The number of bytes to be read from
+     *                          {@code in}.
+     * @param   type            The content type (may be {@code null}).
+     *
+     * @throws  IOException     If an I/O error occurs.
+     */
+    public void put(String key, InputStream in, long length, String type) throws IOException;
+
+    /**
+     * Method to create or replace an object.  The default implementation
+     * calls {@link #put(String,InputStream,long,String)}; backends should
+     * override where the SDK offers a more efficient transfer.
+     *
+     * @param   key             The object key.
+     * @param   source          The source {@link File}.
+     * @param   type            The content type (may be {@code null}).
+     *
+     * @throws  IOException     If an I/O error occurs.
+     */
+    default void put(String key, File source, String type) throws IOException {
+        try (InputStream in = new FileInputStream(source)) {
+            put(key, in, source.length(), type);
+        }
+    }
+
+    /**
+     * Method to create an object only if it does not already exist.
+     *
+     * @param   key             The object key.
+     * @param   source          The source {@link File}.
+     * @param   type            The content type (may be {@code null}).
+     *
+     * @return  {@code true} if the object was created; {@code false} if it
+     *          already existed.
+     *
+     * @throws  IOException     If an I/O error occurs.
+     */
+    public boolean putIfAbsent(String key, File source, String type) throws IOException;
+
+    /**
+     * Method to list the keys starting with {@code prefix}.  If
+     * {@code delimiter} is not {@code null}, keys containing the
+     * {@code delimiter} after the {@code prefix} are rolled up into a
+     * single common prefix ending with the {@code delimiter}.
+     *
+     * @param   prefix          The key prefix.
+     * @param   delimiter       The delimiter (may be {@code null}).
+     *
+     * @return  The sorted {@link List} of keys and common prefixes.
+     *
+     * @throws  IOException     If an I/O error occurs.
+     */
+    public List<String> list(String prefix, String delimiter) throws IOException;
+
+    @Override
+    default void close() throws IOException { }
+
+    /**
+     * Object metadata.
+     */
+    @AllArgsConstructor @Getter @ToString
+    public static class Metadata {
+        private final long length;
+        private final long lastModified;
+        private final String type;
+    }
+}
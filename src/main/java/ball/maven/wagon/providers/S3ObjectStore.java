@@ -0,0 +1,198 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.TreeSet;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * AWS S3 {@link ObjectStore} implementation.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+@RequiredArgsConstructor @ToString
+public class S3ObjectStore implements ObjectStore {
+    private static final int NOT_FOUND = 404;
+
+    @NonNull private final TransferManager manager;
+    @NonNull private final String bucket;
+
+    private AmazonS3 client() { return manager.getAmazonS3Client(); }
+
+    @Override
+    public Metadata head(String key) throws IOException {
+        Metadata metadata = null;
+
+        try {
+            ObjectMetadata object = client().getObjectMetadata(bucket, key);
+
+            metadata =
+                new Metadata(object.getContentLength(),
+                             object.getLastModified().getTime(),
+                             object.getContentType());
+        } catch (AmazonS3Exception exception) {
+            if (exception.getStatusCode() != NOT_FOUND) {
+                throw exception;
+            }
+        }
+
+        return metadata;
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        GetObjectRequest request = new GetObjectRequest(bucket, key);
+
+        if (length >= 0) {
+            request.setRange(offset, offset + length - 1);
+        } else if (offset > 0) {
+            request.setRange(offset);
+        }
+
+        try {
+            return client().getObject(request).getObjectContent();
+        } catch (AmazonS3Exception exception) {
+            if (exception.getStatusCode() == NOT_FOUND) {
+                throw (NoSuchFileException) new NoSuchFileException(key).initCause(exception);
+            }
+
+            throw exception;
+        }
+    }
+
+    @Override
+    public void get(String key, File target) throws IOException {
+        try {
+            manager.download(bucket, key, target).waitForCompletion();
+        } catch (AmazonS3Exception exception) {
+            if (exception.getStatusCode() == NOT_FOUND) {
+                throw (NoSuchFileException) new NoSuchFileException(key).initCause(exception);
+            }
+
+            throw exception;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(key);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream in, long length, String type) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+
+        metadata.setContentLength(length);
+
+        if (type != null) {
+            metadata.setContentType(type);
+        }
+
+        try {
+            manager.upload(bucket, key, in, metadata).waitForCompletion();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(key);
+        }
+    }
+
+    @Override
+    public void put(String key, File source, String type) throws IOException {
+        PutObjectRequest request = new PutObjectRequest(bucket, key, source);
+
+        if (type != null) {
+            ObjectMetadata metadata = new ObjectMetadata();
+
+            metadata.setContentType(type);
+            request.setMetadata(metadata);
+        }
+
+        try {
+            manager.upload(request).waitForCompletion();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(key);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The AWS SDK for Java 1.x does not expose conditional writes so this
+     * implementation is not atomic: the object is written if a preceding
+     * {@link #head(String)} does not find it.
+     */
+    @Override
+    public boolean putIfAbsent(String key, File source, String type) throws IOException {
+        boolean absent = (head(key) == null);
+
+        if (absent) {
+            put(key, source, type);
+        }
+
+        return absent;
+    }
+
+    @Override
+    public List<String> list(String prefix, String delimiter) throws IOException {
+        TreeSet<String> set = new TreeSet<>();
+        ListObjectsRequest request =
+            new ListObjectsRequest()
+            .withBucketName(bucket)
+            .withPrefix(prefix.isEmpty() ? null : prefix)
+            .withDelimiter(delimiter);
+        ObjectListing listing = client().listObjects(request);
+
+        for (;;) {
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                set.add(summary.getKey());
+            }
+
+            set.addAll(listing.getCommonPrefixes());
+
+            if (listing.isTruncated()) {
+                listing = client().listNextBatchOfObjects(listing);
+            } else {
+                break;
+            }
+        }
+
+        return set.stream().collect(toList());
+    }
+
+    @Override
+    public void close() throws IOException { manager.shutdownNow(); }
+}
@@ -28,15 +28,8 @@ import com.amazonaws.regions.DefaultAwsRegionProviderChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.model.Bucket;
-import com.amazonaws.services.s3.model.ObjectListing;
-import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
-import java.io.File;
-import java.util.List;
-import java.util.TreeSet;
-import java.util.regex.Pattern;
 import javax.inject.Named;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -44,21 +37,13 @@ import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
-import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.Wagon;
-import org.apache.maven.wagon.authentication.AuthenticationException;
-import org.apache.maven.wagon.authorization.AuthorizationException;
-import org.apache.maven.wagon.events.TransferEvent;
-import org.apache.maven.wagon.resource.Resource;
-
-import static java.util.stream.Collectors.toList;
-import static org.apache.commons.lang3.StringUtils.EMPTY;
-import static org.apache.commons.lang3.StringUtils.defaultIfEmpty;
-import static org.apache.commons.lang3.StringUtils.isNotEmpty;
-import static org.apache.commons.lang3.StringUtils.strip;
 
 /**
- * AWS S3 {@link Wagon} implementation.
+ * AWS S3 {@link Wagon} implementation.  The configured (or default)
+ * region locates the client but requests are redirected to the bucket's
+ * own region so a single configuration may name buckets in several
+ * regions (e.g., {@link MirrorWagon} mirrors).
  *
  * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
  */
@@ -67,199 +52,27 @@ import static org.apache.commons.lang3.StringUtils.strip;
 public class S3Wagon extends AbstractWagonProvider {
     @Getter @Setter private String profile = null;
     @Getter @Setter private String region = null;
-    private volatile Bucket bucket = null;
-    private TransferManager manager = null;
-
-    @Override
-    protected void openConnectionInternal() throws AuthenticationException {
-        try {
-            if (bucket == null) {
-                synchronized (this) {
-                    if (bucket == null) {
-                        AmazonS3 client =
-                            AmazonS3ClientBuilder.standard()
-                            .withCredentials(new CredentialsProviderChain())
-                            .withRegion(new RegionProviderChain().getRegion())
-                            .build();
-                        String name = getHost();
-
-                        bucket =
-                            client.listBuckets().stream()
-                            .filter(t -> name.equals(t.getName()))
-                            .findFirst()
-                            .orElseThrow(() -> new ResourceDoesNotExistException(getRepository().toString()));
-                        manager =
-                            TransferManagerBuilder.standard()
-                            .withS3Client(client)
-                            .build();
-                    }
-                }
-            }
-        } catch (Exception exception) {
-            if (exception instanceof AuthenticationException) {
-                throw (AuthenticationException) exception;
-            } else {
-                throw new AuthenticationException(getRepository().toString(), exception);
-            }
-        }
-    }
-
-    @Override
-    public void closeConnection() {
-        TransferManager manager = null;
-
-        synchronized (this) {
-            manager = this.manager;
-            this.manager = null;
-        }
-
-        if (manager != null) {
-            manager.shutdownNow();
-        }
-    }
 
     @Override
-    public void get(String source, File target) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-        Resource resource = new Resource(source);
-
-        fireGetInitiated(resource, target);
-        createParentDirectories(target);
-        fireGetStarted(resource, target);
-
-        try {
-            if (resourceExists(source)) {
-                manager.download(bucket.getName(), prefix() + source, target)
-                    .waitForCompletion();
-            } else {
-                throw new ResourceDoesNotExistException(source);
-            }
-        } catch (Exception exception) {
-            if (exception instanceof TransferFailedException) {
-                throw (TransferFailedException) exception;
-            } else if (exception instanceof ResourceDoesNotExistException) {
-                throw (ResourceDoesNotExistException) exception;
-            } else if (exception instanceof AuthorizationException) {
-                throw (AuthorizationException) exception;
-            } else {
-                throw new TransferFailedException(target + " <- " + source, exception);
-            }
-        }
-
-        postProcessListeners(resource, target, TransferEvent.REQUEST_GET);
-        fireGetCompleted(resource, target);
-    }
-
-    @Override
-    public boolean getIfNewer(String source, File target, long timestamp) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-        boolean newer = false;
-        ObjectMetadata metadata =
-            manager.getAmazonS3Client()
-            .getObjectMetadata(bucket.getName(), prefix() + source);
-
-        if (metadata != null) {
-            newer = metadata.getLastModified().getTime() > timestamp;
-        }
-
-        if (newer) {
-            get(source, target);
-        }
-
-        return newer;
-    }
-
-    @Override
-    public void put(File source, String target) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-        Resource resource = new Resource(target);
-
-        resource.setContentLength(source.length());
-        resource.setLastModified(source.lastModified());
-
-        firePutInitiated(resource, source);
-        firePutStarted(resource, source);
-
-        try {
-            manager.upload(bucket.getName(), prefix() + target, source)
-                .waitForCompletion();
-        } catch (Exception exception) {
-            if (exception instanceof TransferFailedException) {
-                throw (TransferFailedException) exception;
-            } else if (exception instanceof ResourceDoesNotExistException) {
-                throw (ResourceDoesNotExistException) exception;
-            } else if (exception instanceof AuthorizationException) {
-                throw (AuthorizationException) exception;
-            } else {
-                throw new TransferFailedException(source + " -> " + target, exception);
-            }
-        }
-
-        postProcessListeners(resource, source, TransferEvent.REQUEST_PUT);
-        firePutCompleted(resource, source);
-    }
-
-    @Override
-    public boolean resourceExists(String name) throws TransferFailedException, AuthorizationException {
-        boolean exists = false;
-
-        try {
-            exists =
-                manager.getAmazonS3Client()
-                .doesObjectExist(bucket.getName(), prefix() + name);
-        } catch (Exception exception) {
-            if (exception instanceof TransferFailedException) {
-                throw (TransferFailedException) exception;
-            } else if (exception instanceof AuthorizationException) {
-                throw (AuthorizationException) exception;
-            } else {
-                throw new TransferFailedException(name, exception);
-            }
-        }
-
-        return exists;
-    }
-
-    @Override
-    public List<String> getFileList(String name) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-        TreeSet<String> set = new TreeSet<>();
-        String prefix = prefix();
-
-        name = strip(name, DELIMITER);
-
-        if (isNotEmpty(name)) {
-            prefix += name + DELIMITER;
-        }
-
-        try {
-            ObjectListing listing =
-                manager.getAmazonS3Client()
-                .listObjects(bucket.getName(), defaultIfEmpty(prefix, null));
-
-            for (;;) {
-                for (S3ObjectSummary summary : listing.getObjectSummaries()) {
-                    String key = summary.getKey().substring(prefix.length());
-                    String[] entries = key.split(Pattern.quote(DELIMITER), 2);
-
-                    set.add(entries[0] + ((entries.length > 1) ? DELIMITER : EMPTY));
-                }
-
-                if (listing.isTruncated()) {
-                    listing =
-                        manager.getAmazonS3Client()
-                        .listNextBatchOfObjects(listing);
-                } else {
-                    break;
-                }
-            }
-        } catch (Exception exception) {
-            if (exception instanceof TransferFailedException) {
-                throw (TransferFailedException) exception;
-            } else if (exception instanceof AuthorizationException) {
-                throw (AuthorizationException) exception;
-            } else {
-                throw new TransferFailedException(name, exception);
-            }
-        }
-
-        return set.stream().collect(toList());
+    protected ObjectStore open() throws Exception {
+        AmazonS3 client =
+            AmazonS3ClientBuilder.standard()
+            .withCredentials(new CredentialsProviderChain())
+            .withRegion(new RegionProviderChain().getRegion())
+            .withForceGlobalBucketAccessEnabled(true)
+            .build();
+        String name = getHost();
+        Bucket bucket =
+            client.listBuckets().stream()
+            .filter(t -> name.equals(t.getName()))
+            .findFirst()
+            .orElseThrow(() -> new ResourceDoesNotExistException(getRepository().toString()));
+        TransferManager manager =
+            TransferManagerBuilder.standard()
+            .withS3Client(client)
+            .build();
+
+        return new S3ObjectStore(manager, bucket.getName());
     }
 
     @ToString
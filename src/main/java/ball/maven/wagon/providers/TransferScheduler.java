@@ -0,0 +1,463 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.wagon.TransferFailedException;
+
+/**
+ * Transfer scheduler shared by {@link AbstractWagonProvider}
+ * implementations.  Enforces per-{@link Operation} concurrency limits and
+ * an optional global bandwidth cap.  {@link Lane#PRIORITY} requests
+ * (metadata, POMs, checksums, small objects, and existence checks) are
+ * admitted ahead of {@link Lane#BULK} transfers and are never held back
+ * by the bandwidth cap.
+ *
+ * <p>Bandwidth is enforced with a token bucket (capacity one second of
+ * bandwidth).  Bulk transfers stream through {@link Permit#throttle(InputStream)}
+ * which charges the bucket per chunk and waits while it is in debt;
+ * priority transfers are charged their length on admission (through
+ * {@link Permit#charge(long)}) but never wait.  The cap is approximate:
+ * it bounds the average rate, not instantaneous throughput.</p>
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+@ToString @Slf4j
+public class TransferScheduler {
+
+    /**
+     * Scheduling lanes.
+     */
+    public enum Lane { PRIORITY, BULK }
+
+    /**
+     * Scheduled operations.
+     */
+    public enum Operation {
+        GET(8), PUT(4), HEAD(16), LIST(16);
+
+        private final int concurrency;
+
+        private Operation(int concurrency) { this.concurrency = concurrency; }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final Map<Operation,Integer> limits = new EnumMap<>(Operation.class);
+    private final Map<Operation,Integer> active = new EnumMap<>(Operation.class);
+    private final Map<Operation,Integer> waiting = new EnumMap<>(Operation.class);
+    private final Map<Lane,Delay> delays = new EnumMap<>(Lane.class);
+    private long bandwidth = 0;
+    private double tokens = 0;
+    private long refilled = System.nanoTime();
+
+    /**
+     * Sole constructor.
+     */
+    public TransferScheduler() {
+        for (Operation operation : Operation.values()) {
+            limits.put(operation, operation.concurrency);
+            active.put(operation, 0);
+            waiting.put(operation, 0);
+        }
+
+        for (Lane lane : Lane.values()) {
+            delays.put(lane, new Delay());
+        }
+    }
+
+    /**
+     * Method to set the global bandwidth cap.
+     *
+     * @param   bandwidth       The cap in bytes per second ({@code <= 0}
+     *                          for unlimited).
+     */
+    public void setBandwidth(long bandwidth) {
+        lock.lock();
+
+        try {
+            this.bandwidth = Math.max(bandwidth, 0);
+            this.tokens = Math.min(tokens, this.bandwidth);
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method to get the global bandwidth cap.
+     *
+     * @return  The cap in bytes per second ({@code 0} if unlimited).
+     */
+    public long getBandwidth() {
+        lock.lock();
+
+        try {
+            return bandwidth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method to set the concurrency limit for an {@link Operation}.
+     *
+     * @param   operation       The {@link Operation}.
+     * @param   limit           The maximum number of concurrent requests.
+     *
+     * @throws  IllegalArgumentException
+     *                          If {@code limit} is not positive.
+     */
+    public void setConcurrency(Operation operation, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException(operation + " concurrency=" + limit);
+        }
+
+        lock.lock();
+
+        try {
+            limits.put(operation, limit);
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method to replace the bandwidth cap and every concurrency limit at
+     * once.  {@link Operation}s missing from {@code limits} revert to
+     * their defaults.
+     *
+     * @param   bandwidth       The cap in bytes per second ({@code <= 0}
+     *                          for unlimited).
+     * @param   limits          The {@link Operation} concurrency limits.
+     *
+     * @throws  IllegalArgumentException
+     *                          If a limit is not positive.
+     */
+    public void configure(long bandwidth, Map<Operation,Integer> limits) {
+        for (Map.Entry<Operation,Integer> entry : limits.entrySet()) {
+            if (entry.getValue() < 1) {
+                throw new IllegalArgumentException(entry.getKey() + " concurrency=" + entry.getValue());
+            }
+        }
+
+        lock.lock();
+
+        try {
+            for (Operation operation : Operation.values()) {
+                this.limits.put(operation, limits.getOrDefault(operation, operation.concurrency));
+            }
+
+            setBandwidth(bandwidth);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method to get the queueing delay statistics for a {@link Lane}.
+     *
+     * @param   lane            The {@link Lane}.
+     *
+     * @return  The {@link Delay}.
+     */
+    public Delay getQueueingDelay(Lane lane) { return delays.get(lane); }
+
+    /**
+     * Method to wait for admission.
+     *
+     * @param   operation       The {@link Operation}.
+     * @param   lane            The {@link Lane}.
+     * @param   name            The resource name (for diagnostics).
+     *
+     * @return  The {@link Permit} which must be closed on completion.
+     *
+     * @throws  TransferFailedException
+     *                          If interrupted while waiting.
+     */
+    public Permit acquire(Operation operation, Lane lane, String name) throws TransferFailedException {
+        long start = System.nanoTime();
+
+        lock.lock();
+
+        try {
+            if (lane == Lane.PRIORITY) {
+                waiting.merge(operation, 1, Integer::sum);
+
+                try {
+                    while (active.get(operation) >= limits.get(operation)) {
+                        condition.await();
+                    }
+                } finally {
+                    waiting.merge(operation, -1, Integer::sum);
+                }
+            } else {
+                for (;;) {
+                    long deficit = refill();
+
+                    if (deficit > 0) {
+                        condition.awaitNanos(deficit);
+                    } else if (! admitsBulk(operation)) {
+                        condition.await();
+                    } else {
+                        break;
+                    }
+                }
+            }
+
+            active.merge(operation, 1, Integer::sum);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new TransferFailedException(name, exception);
+        } finally {
+            lock.unlock();
+        }
+
+        long delay = System.nanoTime() - start;
+
+        delays.get(lane).add(delay);
+        log.debug("{} {} ({}): Queued {} ms",
+                  operation, name, lane, TimeUnit.NANOSECONDS.toMillis(delay));
+
+        return new Permit(operation, lane);
+    }
+
+    /*
+     * Bulk transfers may not take the last slot of an operation nor jump
+     * ahead of waiting priority requests.
+     */
+    private boolean admitsBulk(Operation operation) {
+        int limit = limits.get(operation);
+        int reserve = (limit > 1) ? 1 : 0;
+
+        return waiting.get(operation) == 0
+            && active.get(operation) < limit - reserve;
+    }
+
+    /*
+     * Refill the token bucket (capacity is one second of bandwidth) and
+     * return the nanoseconds until it is out of debt.
+     */
+    private long refill() {
+        long deficit = 0;
+
+        if (bandwidth > 0) {
+            long now = System.nanoTime();
+
+            tokens =
+                Math.min(bandwidth,
+                         tokens + bandwidth * ((now - refilled) / 1e9));
+            refilled = now;
+
+            if (tokens < 0) {
+                deficit = (long) Math.ceil((-tokens * 1e9) / bandwidth);
+            }
+        }
+
+        return deficit;
+    }
+
+    /*
+     * Charge the token bucket without waiting.
+     */
+    private void charge(long bytes) {
+        lock.lock();
+
+        try {
+            if (bandwidth > 0 && bytes > 0) {
+                refill();
+                tokens -= bytes;
+                condition.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Wait while the token bucket is in debt and then charge it.
+     */
+    private void pace(long bytes) throws InterruptedException {
+        lock.lock();
+
+        try {
+            for (;;) {
+                long deficit = refill();
+
+                if (deficit > 0) {
+                    condition.awaitNanos(deficit);
+                } else {
+                    break;
+                }
+            }
+
+            if (bandwidth > 0 && bytes > 0) {
+                tokens -= bytes;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Operation operation) {
+        lock.lock();
+
+        try {
+            active.merge(operation, -1, Integer::sum);
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admission to a scheduled {@link Operation}.
+     */
+    @ToString
+    public class Permit implements AutoCloseable {
+        private final Operation operation;
+        private final Lane lane;
+        private boolean closed = false;
+
+        private Permit(Operation operation, Lane lane) {
+            this.operation = operation;
+            this.lane = lane;
+        }
+
+        /**
+         * Method to determine if the transfer must be paced through
+         * {@link #throttle(InputStream)}.
+         *
+         * @return  {@code true} for {@link Lane#BULK} transfers while a
+         *          bandwidth cap is set; {@code false} otherwise.
+         */
+        public boolean isThrottled() {
+            return lane == Lane.BULK && getBandwidth() > 0;
+        }
+
+        /**
+         * Method to charge bytes against the bandwidth cap without
+         * waiting (for transfers that are not throttled).
+         *
+         * @param   bytes           The number of bytes.
+         */
+        public void charge(long bytes) { TransferScheduler.this.charge(bytes); }
+
+        /**
+         * Method to pace an {@link InputStream} against the bandwidth cap.
+         *
+         * @param   in              The {@link InputStream}.
+         *
+         * @return  The throttled {@link InputStream}.
+         */
+        public InputStream throttle(InputStream in) {
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int read = super.read();
+
+                    if (read >= 0) {
+                        paced(1);
+                    }
+
+                    return read;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) throws IOException {
+                    int count = super.read(bytes, offset, length);
+
+                    if (count > 0) {
+                        paced(count);
+                    }
+
+                    return count;
+                }
+
+                private void paced(long count) throws IOException {
+                    try {
+                        pace(count);
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (! closed) {
+                closed = true;
+                release(operation);
+            }
+        }
+    }
+
+    /**
+     * Queueing delay statistics.
+     */
+    @NoArgsConstructor @ToString
+    public static class Delay {
+        private long count = 0;
+        private long total = 0;
+        private long maximum = 0;
+
+        private synchronized void add(long nanos) {
+            count += 1;
+            total += nanos;
+            maximum = Math.max(maximum, nanos);
+        }
+
+        /**
+         * Method to get the number of admissions.
+         *
+         * @return  The number of admissions.
+         */
+        public synchronized long getCount() { return count; }
+
+        /**
+         * Method to get the maximum delay.
+         *
+         * @return  The maximum delay in nanoseconds.
+         */
+        public synchronized long getMaximum() { return maximum; }
+
+        /**
+         * Method to get the average delay.
+         *
+         * @return  The average delay in nanoseconds.
+         */
+        public synchronized long getAverage() {
+            return (count > 0) ? (total / count) : 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link AbstractWagonProvider} transfer pipeline tests shared by the
+ * backend {@link org.apache.maven.wagon.Wagon} tests.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+public abstract class AbstractWagonProviderTest {
+    protected static final byte[] CONTENT = "Hello, World!".getBytes(UTF_8);
+
+    @TempDir protected Path directory;
+
+    protected File source() throws Exception {
+        File file = directory.resolve("source.jar").toFile();
+
+        Files.write(file.toPath(), CONTENT);
+
+        return file;
+    }
+
+    protected <T extends AbstractWagonProvider> T connect(T wagon, String url) throws Exception {
+        wagon.connect(new Repository("test", url));
+
+        File source = source();
+
+        wagon.put(source, "ball/a/1.0/a-1.0.jar");
+        wagon.put(source, "ball/a/1.0/a-1.0.pom");
+        wagon.put(source, "ball/a/maven-metadata.xml");
+        wagon.put(source, "README");
+
+        return wagon;
+    }
+
+    protected void pipeline(AbstractWagonProvider wagon) throws Exception {
+        File target = directory.resolve("target/a-1.0.jar").toFile();
+
+        wagon.get("ball/a/1.0/a-1.0.jar", target);
+        assertArrayEquals(CONTENT, Files.readAllBytes(target.toPath()));
+
+        assertTrue(wagon.resourceExists("ball/a/1.0/a-1.0.pom"));
+        assertFalse(wagon.resourceExists("ball/a/2.0/a-2.0.pom"));
+        assertThrows(ResourceDoesNotExistException.class,
+                     () -> wagon.get("ball/a/2.0/a-2.0.jar", target));
+
+        assertTrue(target.delete());
+        assertFalse(wagon.getIfNewer("ball/a/1.0/a-1.0.jar", target, Long.MAX_VALUE));
+        assertFalse(target.exists());
+        assertTrue(wagon.getIfNewer("ball/a/1.0/a-1.0.jar", target, 0));
+        assertArrayEquals(CONTENT, Files.readAllBytes(target.toPath()));
+
+        assertEquals(Arrays.asList("README", "ball/"), wagon.getFileList(""));
+        assertEquals(Arrays.asList("1.0/", "maven-metadata.xml"), wagon.getFileList("ball/a"));
+        assertEquals(Arrays.asList("a-1.0.jar", "a-1.0.pom"), wagon.getFileList("/ball/a/1.0/"));
+
+        wagon.disconnect();
+    }
+}
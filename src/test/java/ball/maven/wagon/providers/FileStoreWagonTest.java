@@ -0,0 +1,49 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link FileStoreWagon} tests.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+public class FileStoreWagonTest extends AbstractWagonProviderTest {
+    @Test
+    public void pipeline() throws Exception {
+        Path root = directory.resolve("repository");
+
+        pipeline(connect(new FileStoreWagon(), "file-store://" + root.toUri().getPath()));
+        assertTrue(Files.isRegularFile(root.resolve("ball/a/1.0/a-1.0.jar")));
+    }
+
+    @Test
+    public void host() throws Exception {
+        assertThrows(AuthenticationException.class,
+                     () -> new FileStoreWagon().connect(new Repository("test", "file-store://tmp/repository")));
+    }
+}
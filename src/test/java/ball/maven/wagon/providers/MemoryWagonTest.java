@@ -0,0 +1,102 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.util.Properties;
+import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.jupiter.api.Test;
+
+import static ball.maven.wagon.providers.TransferScheduler.Lane;
+import static ball.maven.wagon.providers.TransferScheduler.Operation;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link MemoryWagon} tests.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+public class MemoryWagonTest extends AbstractWagonProviderTest {
+    @Test
+    public void pipeline() throws Exception {
+        pipeline(connect(new MemoryWagon(), "mem://memory/repository"));
+    }
+
+    @Test
+    public void sharedByName() throws Exception {
+        connect(new MemoryWagon(), "mem://shared/repository").disconnect();
+
+        MemoryWagon wagon = new MemoryWagon();
+
+        wagon.connect(new Repository("test", "mem://shared/repository"));
+        assertTrue(wagon.resourceExists("README"));
+        wagon.disconnect();
+
+        wagon.connect(new Repository("test", "mem://other/repository"));
+        assertFalse(wagon.resourceExists("README"));
+        wagon.disconnect();
+    }
+
+    @Test
+    public void lane() throws Exception {
+        MemoryWagon wagon = new MemoryWagon();
+
+        assertEquals(Lane.PRIORITY, wagon.lane(Operation.GET, "ball/a/1.0/a-1.0.pom", -1));
+        assertEquals(Lane.PRIORITY, wagon.lane(Operation.GET, "ball/a/1.0/a-1.0.jar", 1024));
+        assertEquals(Lane.BULK, wagon.lane(Operation.GET, "ball/a/1.0/a-1.0.jar", -1));
+        assertEquals(Lane.BULK, wagon.lane(Operation.PUT, "ball/a/1.0/a-1.0.jar", 1024 * 1024));
+        assertEquals(Lane.PRIORITY, wagon.lane(Operation.HEAD, "ball/a/1.0/a-1.0.jar", -1));
+    }
+
+    @Test
+    public void configure() throws Exception {
+        MemoryWagon wagon = new MemoryWagon();
+
+        wagon.setBandwidth(1024L * 1024);
+        wagon.connect(new Repository("test", "mem://configure/repository"));
+        assertEquals(1024L * 1024, AbstractWagonProvider.getTransferScheduler().getBandwidth());
+        wagon.disconnect();
+
+        wagon = new MemoryWagon();
+        wagon.connect(new Repository("test", "mem://configure/repository"));
+        assertEquals(0, AbstractWagonProvider.getTransferScheduler().getBandwidth());
+        wagon.disconnect();
+
+        for (String value : new String[] { "0", "-1", "many" }) {
+            Properties concurrency = new Properties();
+
+            concurrency.setProperty("get", value);
+
+            MemoryWagon invalid = new MemoryWagon();
+
+            invalid.setConcurrency(concurrency);
+            assertThrows(ConnectionException.class,
+                         () -> invalid.connect(new Repository("test", "mem://configure/repository")));
+        }
+
+        MemoryWagon invalid = new MemoryWagon();
+
+        invalid.setBandwidth(0L);
+        assertThrows(ConnectionException.class,
+                     () -> invalid.connect(new Repository("test", "mem://configure/repository")));
+    }
+}
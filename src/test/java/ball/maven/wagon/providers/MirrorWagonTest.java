@@ -0,0 +1,249 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link MirrorWagon} tests.  Locations use a {@code test://} scheme
+ * whose stores may be slowed down or made to fail.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+public class MirrorWagonTest extends AbstractWagonProviderTest {
+    private static final Map<String,TestStore> STORES = new ConcurrentHashMap<>();
+    private static final String NAME = "ball/a/1.0/a-1.0.jar";
+
+    private static TestStore store(String host) {
+        return STORES.computeIfAbsent(host, k -> new TestStore());
+    }
+
+    private TestMirrorWagon connect(String primary, String... mirrors) throws Exception {
+        TestMirrorWagon wagon = new TestMirrorWagon();
+
+        wagon.setMirrors(Arrays.asList(mirrors));
+        wagon.connect(new Repository("test", "mirror:" + primary));
+
+        return wagon;
+    }
+
+    private void populate(String... hosts) throws Exception {
+        for (String host : hosts) {
+            store(host).put("repository/" + NAME, source(), null);
+        }
+    }
+
+    @Test
+    public void pipeline() throws Exception {
+        TestMirrorWagon wagon = new TestMirrorWagon();
+
+        wagon.setMirrors(Arrays.asList("mem://mirror-pipeline-mirror/repository"));
+        pipeline(connect(wagon, "mirror:mem://mirror-pipeline/repository"));
+    }
+
+    @Test
+    public void writesToPrimaryOnly() throws Exception {
+        TestMirrorWagon wagon = connect("test://write-primary/repository", "test://write-mirror/repository");
+
+        wagon.put(source(), NAME);
+        wagon.disconnect();
+
+        assertNotNull(store("write-primary").head("repository/" + NAME));
+        assertNull(store("write-mirror").head("repository/" + NAME));
+    }
+
+    @Test
+    public void failoverOnMissingHead() throws Exception {
+        populate("head-mirror");
+
+        TestMirrorWagon wagon = connect("test://head-primary/repository", "test://head-mirror/repository");
+        File target = directory.resolve("target.jar").toFile();
+
+        assertTrue(wagon.resourceExists(NAME));
+        wagon.get(NAME, target);
+        assertArrayEquals(CONTENT, Files.readAllBytes(target.toPath()));
+        assertFalse(wagon.resourceExists("ball/a/2.0/a-2.0.jar"));
+        wagon.disconnect();
+    }
+
+    @Test
+    public void failoverOnNoSuchFile() throws Exception {
+        populate("get-mirror");
+
+        TestMirrorWagon wagon = connect("test://get-primary/repository", "test://get-mirror/repository");
+
+        for (int i = 0; i < 4; i += 1) {
+            try (InputStream in = wagon.getObjectStore().get(wagon.prefix() + NAME, 0, -1)) {
+                assertEquals(CONTENT.length, in.available());
+            }
+        }
+
+        assertThrows(NoSuchFileException.class,
+                     () -> wagon.getObjectStore().get(wagon.prefix() + "ball/a/2.0/a-2.0.jar", 0, -1));
+        wagon.disconnect();
+    }
+
+    @Test
+    public void failoverOnError() throws Exception {
+        populate("error-primary", "error-mirror");
+        store("error-primary").failing = true;
+
+        TestMirrorWagon wagon = connect("test://error-primary/repository", "test://error-mirror/repository");
+
+        for (int i = 0; i < 10; i += 1) {
+            assertTrue(wagon.resourceExists(NAME));
+        }
+
+        assertEquals(1, store("error-primary").heads.get());
+        assertEquals(10, store("error-mirror").heads.get());
+
+        store("error-mirror").failing = true;
+        assertThrows(Exception.class, () -> wagon.resourceExists(NAME));
+        wagon.disconnect();
+    }
+
+    @Test
+    public void latencyOrdering() throws Exception {
+        populate("slow-primary", "fast-mirror");
+        store("slow-primary").delay = 20;
+
+        TestMirrorWagon wagon = connect("test://slow-primary/repository", "test://fast-mirror/repository");
+
+        for (int i = 0; i < 10; i += 1) {
+            assertTrue(wagon.resourceExists(NAME));
+        }
+
+        assertEquals(1, store("slow-primary").heads.get());
+        assertEquals(9, store("fast-mirror").heads.get());
+        wagon.disconnect();
+    }
+
+    @Test
+    public void missesAreDemoted() throws Exception {
+        populate("miss-primary");
+
+        TestMirrorWagon wagon = connect("test://miss-primary/repository", "test://miss-mirror/repository");
+
+        for (int i = 0; i < 20; i += 1) {
+            assertTrue(wagon.resourceExists(NAME));
+        }
+
+        assertEquals(1, store("miss-mirror").heads.get());
+        assertEquals(20, store("miss-primary").heads.get());
+        wagon.disconnect();
+    }
+
+    @Test
+    public void penaltiesAreProbed() throws Exception {
+        populate("probe-primary", "probe-mirror");
+        store("probe-primary").failing = true;
+        store("probe-mirror").delay = 20;
+
+        TestMirrorWagon wagon = connect("test://probe-primary/repository", "test://probe-mirror/repository");
+
+        wagon.setProbeInterval(200);
+        assertTrue(wagon.resourceExists(NAME));
+        assertEquals(1, store("probe-primary").heads.get());
+
+        store("probe-primary").failing = false;
+        assertTrue(wagon.resourceExists(NAME));
+        assertEquals(1, store("probe-primary").heads.get());
+
+        Thread.sleep(250);
+
+        for (int i = 0; i < 10; i += 1) {
+            assertTrue(wagon.resourceExists(NAME));
+        }
+
+        assertTrue(store("probe-primary").heads.get() >= 9);
+        wagon.disconnect();
+    }
+
+    private static class TestMirrorWagon extends MirrorWagon {
+        @Override
+        protected AbstractWagonProvider newWagon(URI uri) {
+            return "test".equals(uri.getScheme()) ? new TestWagon() : super.newWagon(uri);
+        }
+    }
+
+    private static class TestWagon extends MemoryWagon {
+        @Override
+        protected ObjectStore open() throws Exception { return store(getHost()); }
+    }
+
+    private static class TestStore extends MemoryObjectStore {
+        private final AtomicInteger heads = new AtomicInteger();
+        private volatile boolean failing = false;
+        private volatile long delay = 0;
+
+        private void check() throws IOException {
+            if (failing) {
+                throw new IOException("Unavailable");
+            }
+
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException exception) {
+                throw new IOException(exception);
+            }
+        }
+
+        @Override
+        public Metadata head(String key) throws IOException {
+            heads.incrementAndGet();
+            check();
+
+            return super.head(key);
+        }
+
+        @Override
+        public InputStream get(String key, long offset, long length) throws IOException {
+            check();
+
+            return super.get(key, offset, length);
+        }
+
+        @Override
+        public List<String> list(String prefix, String delimiter) throws IOException {
+            check();
+
+            return super.list(prefix, delimiter);
+        }
+    }
+}
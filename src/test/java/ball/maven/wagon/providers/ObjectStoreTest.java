@@ -0,0 +1,147 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ObjectStore} contract tests applied to the
+ * {@link MemoryObjectStore} and {@link FileObjectStore} implementations.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+public class ObjectStoreTest {
+    private static final byte[] CONTENT = "Hello, World!".getBytes(UTF_8);
+
+    @TempDir Path directory;
+
+    private File source() throws Exception {
+        File file = directory.resolve("source.jar").toFile();
+
+        Files.write(file.toPath(), CONTENT);
+
+        return file;
+    }
+
+    private List<ObjectStore> stores(String name) {
+        return Arrays.asList(new MemoryObjectStore(),
+                             new FileObjectStore(directory.resolve(name)));
+    }
+
+    @Test
+    public void list() throws Exception {
+        File source = source();
+
+        for (ObjectStore store : stores("list")) {
+            store.put("a/b.pom", source, null);
+            store.put("a/c/d.jar", source, null);
+            store.put("a/c/e/f.jar", source, null);
+            store.put("g.txt", source, null);
+
+            assertEquals(Arrays.asList("a/", "g.txt"), store.list("", "/"));
+            assertEquals(Arrays.asList("a/b.pom", "a/c/"), store.list("a/", "/"));
+            assertEquals(Arrays.asList("a/b.pom"), store.list("a/b", "/"));
+            assertEquals(Arrays.asList("a/b.pom", "a/c/d.jar", "a/c/e/f.jar", "g.txt"),
+                         store.list("", null));
+        }
+    }
+
+    @Test
+    public void contract() throws Exception {
+        File source = source();
+
+        for (ObjectStore store : stores("contract")) {
+            store.put("a/b", source, null);
+
+            assertEquals(CONTENT.length, store.head("a/b").getLength());
+            assertNull(store.head("a/c"));
+            assertNull(store.head("../escape"));
+
+            try (InputStream in = store.get("a/b", 7, 5)) {
+                assertEquals("World", new String(read(in), UTF_8));
+            }
+
+            try (InputStream in = store.get("a/b", 7, -1)) {
+                assertEquals("World!", new String(read(in), UTF_8));
+            }
+
+            assertThrows(IllegalArgumentException.class, () -> store.get("a/b", -1, -1));
+
+            assertFalse(store.putIfAbsent("a/b", source, null));
+            assertTrue(store.putIfAbsent("a/c", source, null));
+        }
+    }
+
+    @Test
+    public void failedPut() throws Exception {
+        for (ObjectStore store : stores("failed")) {
+            InputStream in = new InputStream() {
+                    private int count = 0;
+
+                    @Override
+                    public int read() throws IOException {
+                        if (count++ > 4) {
+                            throw new IOException("Interrupted upload");
+                        }
+
+                        return 'x';
+                    }
+                };
+
+            assertThrows(IOException.class, () -> store.put("a/b.jar", in, 1024, null));
+            assertNull(store.head("a/b.jar"));
+            assertEquals(Arrays.asList(), store.list("", null));
+        }
+
+        try (Stream<Path> stream = Files.walk(directory.resolve("failed"))) {
+            assertEquals(Arrays.asList(),
+                         stream.filter(Files::isRegularFile).collect(toList()));
+        }
+    }
+
+    private static byte[] read(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4];
+        int count = 0;
+
+        while ((count = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, count);
+        }
+
+        return out.toByteArray();
+    }
+}
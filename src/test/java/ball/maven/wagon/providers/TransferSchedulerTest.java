@@ -0,0 +1,211 @@
+package ball.maven.wagon.providers;
+/*-
+ * ##########################################################################
+ * Maven Wagon Providers
+ * %%
+ * Copyright (C) 2017 - 2022 Allen D. Ball
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ##########################################################################
+ */
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+import static ball.maven.wagon.providers.TransferScheduler.Lane;
+import static ball.maven.wagon.providers.TransferScheduler.Operation;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link TransferScheduler} admission tests.
+ *
+ * @author {@link.uri mailto:ball@hcf.dev Allen D. Ball}
+ */
+public class TransferSchedulerTest {
+    private static final long TIMEOUT = 5000;
+
+    private final TransferScheduler scheduler = new TransferScheduler();
+    private final List<String> admitted = new CopyOnWriteArrayList<>();
+
+    private Thread start(Operation operation, Lane lane, String name) throws Exception {
+        Thread thread = new Thread(() -> {
+                try {
+                    TransferScheduler.Permit permit = scheduler.acquire(operation, lane, name);
+
+                    try {
+                        admitted.add(name);
+                    } finally {
+                        permit.close();
+                    }
+                } catch (Exception exception) {
+                    throw new IllegalStateException(exception);
+                }
+            });
+
+        thread.start();
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (thread.getState() != Thread.State.WAITING
+               && thread.getState() != Thread.State.TIMED_WAITING
+               && thread.isAlive()
+               && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        return thread;
+    }
+
+    @Test
+    public void priorityReserve() throws Exception {
+        scheduler.setConcurrency(Operation.GET, 2);
+
+        TransferScheduler.Permit bulk = scheduler.acquire(Operation.GET, Lane.BULK, "bulk-1");
+
+        try {
+            Thread waiting = start(Operation.GET, Lane.BULK, "bulk-2");
+
+            assertTrue(waiting.isAlive());
+
+            Thread priority = start(Operation.GET, Lane.PRIORITY, "priority");
+
+            priority.join(TIMEOUT);
+            assertFalse(priority.isAlive());
+            assertEquals(asList("priority"), admitted);
+        } finally {
+            bulk.close();
+        }
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (admitted.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(asList("priority", "bulk-2"), admitted);
+    }
+
+    @Test
+    public void priorityAheadOfBulk() throws Exception {
+        scheduler.setConcurrency(Operation.PUT, 1);
+
+        Thread bulk = null;
+        Thread priority = null;
+
+        TransferScheduler.Permit permit = scheduler.acquire(Operation.PUT, Lane.PRIORITY, "held");
+
+        try {
+            bulk = start(Operation.PUT, Lane.BULK, "bulk");
+            priority = start(Operation.PUT, Lane.PRIORITY, "priority");
+
+            assertTrue(bulk.isAlive());
+            assertTrue(priority.isAlive());
+        } finally {
+            permit.close();
+        }
+
+        bulk.join(TIMEOUT);
+        priority.join(TIMEOUT);
+
+        assertEquals(asList("priority", "bulk"), admitted);
+        assertEquals(1, scheduler.getQueueingDelay(Lane.BULK).getCount());
+        assertEquals(2, scheduler.getQueueingDelay(Lane.PRIORITY).getCount());
+    }
+
+    @Test
+    public void otherOperationsNotBlocked() throws Exception {
+        scheduler.setConcurrency(Operation.GET, 1);
+
+        TransferScheduler.Permit permit = scheduler.acquire(Operation.GET, Lane.PRIORITY, "get");
+
+        try {
+            Thread head = start(Operation.HEAD, Lane.PRIORITY, "head");
+            Thread bulk = start(Operation.PUT, Lane.BULK, "put");
+
+            head.join(TIMEOUT);
+            bulk.join(TIMEOUT);
+
+            assertFalse(head.isAlive());
+            assertFalse(bulk.isAlive());
+        } finally {
+            permit.close();
+        }
+    }
+
+    @Test
+    public void throttle() throws Exception {
+        scheduler.setBandwidth(10_000);
+
+        long start = System.nanoTime();
+
+        try (TransferScheduler.Permit permit = scheduler.acquire(Operation.GET, Lane.BULK, "bulk")) {
+            assertTrue(permit.isThrottled());
+
+            try (InputStream in = permit.throttle(new ByteArrayInputStream(new byte[5_000]))) {
+                byte[] buffer = new byte[100];
+
+                while (in.read(buffer) >= 0) {
+                    continue;
+                }
+            }
+        }
+
+        assertTrue(NANOSECONDS.toMillis(System.nanoTime() - start) >= 400);
+    }
+
+    @Test
+    public void debt() throws Exception {
+        scheduler.setBandwidth(10_000);
+
+        long start = System.nanoTime();
+
+        try (TransferScheduler.Permit permit = scheduler.acquire(Operation.GET, Lane.PRIORITY, "priority")) {
+            assertFalse(permit.isThrottled());
+            permit.charge(5_000);
+        }
+
+        assertTrue(NANOSECONDS.toMillis(System.nanoTime() - start) < 400);
+
+        scheduler.acquire(Operation.GET, Lane.BULK, "bulk").close();
+
+        assertTrue(NANOSECONDS.toMillis(System.nanoTime() - start) >= 400);
+    }
+
+    @Test
+    public void configure() throws Exception {
+        assertThrows(IllegalArgumentException.class,
+                     () -> scheduler.setConcurrency(Operation.GET, 0));
+
+        EnumMap<Operation,Integer> limits = new EnumMap<>(Operation.class);
+
+        limits.put(Operation.PUT, 1);
+        scheduler.configure(10_000, limits);
+        assertEquals(10_000, scheduler.getBandwidth());
+
+        limits.put(Operation.GET, -1);
+        assertThrows(IllegalArgumentException.class, () -> scheduler.configure(0, limits));
+        assertEquals(10_000, scheduler.getBandwidth());
+
+        scheduler.configure(0, Collections.emptyMap());
+        assertEquals(0, scheduler.getBandwidth());
+    }
+}